@@ -0,0 +1,327 @@
+package service;
+
+import dao.ItemDAO;
+import model.Item;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Serviço de sugestões (autocompletar) por prefixo sobre títulos e autores.
+ * Mantém em memória um índice ordenado com os valores normalizados (minúsculas,
+ * sem acentos nem pontuação). Cada valor é indexado a partir do início de cada
+ * palavra, de modo que "senhor" encontra "O Senhor dos Anéis" e "tolkien"
+ * encontra "J. R. R. Tolkien". As chaves que começam com o prefixo digitado
+ * são localizadas por busca binária, sem consultar o banco de dados.
+ * O top-K de cada prefixo consultado fica guardado e é ajustado a cada alteração,
+ * de modo que consultas repetidas custam O(K), e não O(número de chaves que casam).
+ * Cada entrada tem um peso de popularidade: a quantidade de itens que usam o valor
+ * mais as vezes em que a sugestão foi escolhida.
+ */
+public class AutocompleteService {
+    private static final Pattern MARCAS_DIACRITICAS = Pattern.compile("\\p{M}+");
+    private static final Pattern NAO_ALFANUMERICOS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    /**
+     * Separa o trecho indexado da chave completa, tornando única cada chave do índice.
+     * É menor que qualquer caractere válido, então não interfere na busca por prefixo.
+     */
+    private static final char SEPARADOR = '\u0000';
+
+    /**
+     * Prefixos com até este tamanho casam com boa parte do índice;
+     * seus top-K são calculados já na construção do índice.
+     */
+    private static final int PREFIXO_CURTO = 2;
+
+    /**
+     * Quantidade de sugestões guardadas por prefixo (maior K atendido pelo cache).
+     */
+    private static final int TAMANHO_TOPO = 20;
+
+    /**
+     * Máximo de prefixos com top-K guardado; os menos usados são descartados.
+     */
+    private static final int MAXIMO_PREFIXOS = 4096;
+
+    /**
+     * Ordena as sugestões por peso decrescente e, em caso de empate, alfabeticamente.
+     */
+    private static final Comparator<Entrada> POR_RELEVANCIA =
+        Comparator.comparingLong((Entrada e) -> e.peso).reversed()
+                  .thenComparing(e -> e.chave);
+
+    private final Map<String, Entrada> entradas = new HashMap<>();
+    private final NavigableMap<String, Entrada> indice = new TreeMap<>();
+    private final Map<String, List<Entrada>> topoPorPrefixo = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, List<Entrada>> maisAntigo) {
+            return size() > MAXIMO_PREFIXOS;
+        }
+    };
+
+    /**
+     * Entrada do índice: valor exibido ao usuário e seus contadores de popularidade.
+     */
+    private static class Entrada {
+        private final String chave;
+        private final String texto;
+        private int ocorrencias;
+        private long peso;
+
+        private Entrada(String chave, String texto) {
+            this.chave = chave;
+            this.texto = texto;
+        }
+    }
+
+    /**
+     * Constrói o índice do zero percorrendo a tabela de itens uma única vez.
+     */
+    public void construir(ItemDAO itemDAO) throws Exception {
+        Map<String, Entrada> novas = new HashMap<>();
+        itemDAO.percorrerTodos(item -> {
+            contar(novas, item.getTitulo());
+            contar(novas, item.getAutor());
+        });
+
+        synchronized (this) {
+            entradas.clear();
+            indice.clear();
+            topoPorPrefixo.clear();
+            entradas.putAll(novas);
+            for (Entrada entrada : novas.values()) {
+                indexar(entrada);
+            }
+            calcularPrefixosCurtos();
+        }
+    }
+
+    /**
+     * Adiciona ao índice o título e o autor de um item recém-cadastrado.
+     */
+    public synchronized void adicionar(Item item) {
+        incrementar(item.getTitulo());
+        incrementar(item.getAutor());
+    }
+
+    /**
+     * Remove do índice o título e o autor de um item excluído ou alterado.
+     * Entradas que deixam de ser usadas por algum item são descartadas.
+     */
+    public synchronized void remover(Item item) {
+        decrementar(item.getTitulo());
+        decrementar(item.getAutor());
+    }
+
+    /**
+     * Registra que o usuário escolheu uma sugestão, aumentando sua popularidade.
+     */
+    public synchronized void registrarEscolha(String valor) {
+        Entrada entrada = entradas.get(normalizar(valor));
+        if (entrada != null) {
+            entrada.peso++;
+            ajustarTopo(entrada, true);
+        }
+    }
+
+    /**
+     * Retorna até {@code limite} sugestões com alguma palavra começando pelo prefixo,
+     * ordenadas da mais popular para a menos popular.
+     * A comparação ignora maiúsculas, acentos, pontuação e espaços repetidos.
+     * Até TAMANHO_TOPO sugestões a resposta vem do top-K guardado; acima disso,
+     * todas as chaves do prefixo são examinadas a cada chamada.
+     */
+    public synchronized List<String> sugerir(String prefixo, int limite) {
+        List<String> sugestoes = new ArrayList<>();
+        String chave = normalizar(prefixo);
+        if (chave.isEmpty() || limite <= 0) {
+            return sugestoes;
+        }
+
+        List<Entrada> melhores;
+        if (limite <= TAMANHO_TOPO) {
+            // Na primeira consulta do prefixo a faixa inteira é examinada; depois, O(K)
+            melhores = topoPorPrefixo.computeIfAbsent(chave, c -> selecionar(c, TAMANHO_TOPO));
+        } else {
+            melhores = selecionar(chave, limite);
+        }
+
+        for (Entrada entrada : melhores.subList(0, Math.min(limite, melhores.size()))) {
+            sugestoes.add(entrada.texto);
+        }
+        return sugestoes;
+    }
+
+    /**
+     * Converte um valor para a forma usada como chave no índice:
+     * sem acentos nem pontuação, em minúsculas e com palavras separadas por um espaço.
+     */
+    static String normalizar(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        String semAcentos = MARCAS_DIACRITICAS
+            .matcher(Normalizer.normalize(valor, Normalizer.Form.NFD))
+            .replaceAll("");
+        return NAO_ALFANUMERICOS.matcher(semAcentos.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    /**
+     * Seleciona as K entradas mais relevantes entre as chaves que começam com o prefixo.
+     * Como as chaves estão ordenadas, a faixa é localizada por busca binária.
+     */
+    private List<Entrada> selecionar(String chave, int limite) {
+        // Mantém apenas as K melhores: o topo do heap é a pior entre as selecionadas
+        PriorityQueue<Entrada> melhores = new PriorityQueue<>(limite + 1, POR_RELEVANCIA.reversed());
+        Set<Entrada> vistas = new HashSet<>();
+        for (Entrada entrada : indice.subMap(chave, true, chave + Character.MAX_VALUE, false).values()) {
+            // Um mesmo valor pode casar por mais de uma palavra
+            if (!vistas.add(entrada)) {
+                continue;
+            }
+            melhores.offer(entrada);
+            if (melhores.size() > limite) {
+                melhores.poll();
+            }
+        }
+
+        List<Entrada> ordenadas = new ArrayList<>(melhores);
+        ordenadas.sort(POR_RELEVANCIA);
+        return ordenadas;
+    }
+
+    /**
+     * Calcula o top-K de todos os prefixos curtos presentes no índice.
+     * Cada chave pertence a poucos prefixos curtos, então o custo total é linear.
+     */
+    private void calcularPrefixosCurtos() {
+        Set<String> prefixos = new HashSet<>();
+        for (String chave : indice.keySet()) {
+            int fim = chave.indexOf(SEPARADOR);
+            for (int tamanho = 1; tamanho <= PREFIXO_CURTO && tamanho <= fim; tamanho++) {
+                prefixos.add(chave.substring(0, tamanho));
+            }
+        }
+        for (String prefixo : prefixos) {
+            topoPorPrefixo.put(prefixo, selecionar(prefixo, TAMANHO_TOPO));
+        }
+    }
+
+    /**
+     * Posições em que começa cada palavra da chave normalizada.
+     */
+    private static List<Integer> iniciosDePalavra(String chave) {
+        List<Integer> inicios = new ArrayList<>();
+        for (int i = 0; i < chave.length(); i++) {
+            if (i == 0 || chave.charAt(i - 1) == ' ') {
+                inicios.add(i);
+            }
+        }
+        return inicios;
+    }
+
+    private void indexar(Entrada entrada) {
+        for (int inicio : iniciosDePalavra(entrada.chave)) {
+            indice.put(entrada.chave.substring(inicio) + SEPARADOR + entrada.chave, entrada);
+        }
+    }
+
+    private void desindexar(Entrada entrada) {
+        for (int inicio : iniciosDePalavra(entrada.chave)) {
+            indice.remove(entrada.chave.substring(inicio) + SEPARADOR + entrada.chave);
+        }
+    }
+
+    /**
+     * Ajusta os top-K guardados dos prefixos que casam com a entrada após mudar seu peso.
+     * Um aumento nunca exige reexaminar o índice: a entrada apenas sobe ou entra na lista.
+     * Uma redução só descarta a lista quando ela está cheia e contém a entrada,
+     * pois alguma chave fora dela pode ter passado à frente; ela é recalculada na próxima consulta.
+     * Listas com menos de TAMANHO_TOPO itens contêm todas as chaves do prefixo.
+     */
+    private void ajustarTopo(Entrada entrada, boolean aumentou) {
+        Set<String> ajustados = new HashSet<>();
+        for (int inicio : iniciosDePalavra(entrada.chave)) {
+            for (int fim = inicio + 1; fim <= entrada.chave.length(); fim++) {
+                String prefixo = entrada.chave.substring(inicio, fim);
+                List<Entrada> topo = topoPorPrefixo.get(prefixo);
+                if (topo == null || !ajustados.add(prefixo)) {
+                    continue;
+                }
+
+                boolean presente = topo.contains(entrada);
+                if (aumentou) {
+                    if (!presente && topo.size() >= TAMANHO_TOPO) {
+                        if (POR_RELEVANCIA.compare(entrada, topo.get(topo.size() - 1)) >= 0) {
+                            continue;
+                        }
+                        topo.remove(topo.size() - 1);
+                    }
+                    if (!presente) {
+                        topo.add(entrada);
+                    }
+                    topo.sort(POR_RELEVANCIA);
+                } else if (presente) {
+                    if (topo.size() >= TAMANHO_TOPO) {
+                        topoPorPrefixo.remove(prefixo);
+                    } else if (entrada.ocorrencias <= 0) {
+                        topo.remove(entrada);
+                    } else {
+                        topo.sort(POR_RELEVANCIA);
+                    }
+                }
+            }
+        }
+    }
+
+    private static Entrada contar(Map<String, Entrada> destino, String valor) {
+        String chave = normalizar(valor);
+        if (chave.isEmpty()) {
+            return null;
+        }
+        Entrada entrada = destino.computeIfAbsent(chave, c -> new Entrada(c, valor.trim()));
+        entrada.ocorrencias++;
+        entrada.peso++;
+        return entrada;
+    }
+
+    private void incrementar(String valor) {
+        String chave = normalizar(valor);
+        boolean nova = !chave.isEmpty() && !entradas.containsKey(chave);
+        Entrada entrada = contar(entradas, valor);
+        if (entrada == null) {
+            return;
+        }
+        if (nova) {
+            indexar(entrada);
+        }
+        ajustarTopo(entrada, true);
+    }
+
+    private void decrementar(String valor) {
+        Entrada entrada = entradas.get(normalizar(valor));
+        if (entrada == null) {
+            return;
+        }
+        entrada.ocorrencias--;
+        entrada.peso--;
+        ajustarTopo(entrada, false);
+        if (entrada.ocorrencias <= 0) {
+            entradas.remove(entrada.chave);
+            desindexar(entrada);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package view;
 
 import dao.ItemDAO;
+import dao.ItemDAOAutocomplete;
 import dao.ItemDAOImpl;
 import model.Item;
+import service.AutocompleteService;
 
 import java.util.List;
 import java.util.Optional;
@@ -14,8 +16,13 @@ import java.util.Scanner;
  * utilizando o padrão DAO para acesso aos dados.
  */
 public class CatalogoApp {
+    private static final int LIMITE_SUGESTOES = 10;
     private static Scanner sc = new Scanner(System.in);
-    private static ItemDAO itemDAO = new ItemDAOImpl();
+    private static AutocompleteService autocomplete = new AutocompleteService();
+    private static ItemDAO itemDAO = new ItemDAOAutocomplete(
+        new ItemDAOImpl("true".equalsIgnoreCase(System.getenv("DATABASE_HEDGED_READS"))),
+        autocomplete
+    );
 
     /**
      * Método principal que inicia a aplicação.
@@ -30,6 +37,13 @@ public class CatalogoApp {
             return;
         }
 
+        // Carrega o índice de sugestões percorrendo a tabela de itens uma única vez
+        try {
+            autocomplete.construir(itemDAO);
+        } catch (Exception e) {
+            System.err.println("Erro ao carregar sugestões: " + e.getMessage());
+        }
+
         int opcao;
         // Loop principal do menu
         do {
@@ -39,6 +53,7 @@ public class CatalogoApp {
             System.out.println("3 - Buscar por título/autor");
             System.out.println("4 - Atualizar item");
             System.out.println("5 - Deletar item");
+            System.out.println("6 - Sugestões de título/autor");
             System.out.println("0 - Sair");
             System.out.print("Escolha: ");
             opcao = lerInt();
@@ -49,6 +64,7 @@ public class CatalogoApp {
                 case 3 -> buscarItens();
                 case 4 -> atualizarItem();
                 case 5 -> deletarItem();
+                case 6 -> sugerirTermos();
                 case 0 -> System.out.println("Saindo...");
                 default -> System.out.println("Opção inválida!");
             }
@@ -128,6 +144,41 @@ public class CatalogoApp {
         }
     }
 
+    /**
+     * Exibe sugestões de títulos e autores que começam com o prefixo digitado.
+     * As sugestões vêm do índice em memória, ordenadas por popularidade.
+     * Ao escolher uma sugestão, executa a busca por ela.
+     */
+    private static void sugerirTermos() {
+        System.out.print("Prefixo (título/autor): ");
+        String prefixo = sc.nextLine();
+
+        List<String> sugestoes = autocomplete.sugerir(prefixo, LIMITE_SUGESTOES);
+        if (sugestoes.isEmpty()) {
+            System.out.println("Nenhuma sugestão encontrada.");
+            return;
+        }
+
+        System.out.println("\n=== Sugestões ===");
+        for (int i = 0; i < sugestoes.size(); i++) {
+            System.out.println((i + 1) + " - " + sugestoes.get(i));
+        }
+        System.out.print("Escolha uma sugestão para buscar (0 para voltar): ");
+        int escolha = lerInt();
+        if (escolha < 1 || escolha > sugestoes.size()) {
+            return;
+        }
+
+        String termo = sugestoes.get(escolha - 1);
+        autocomplete.registrarEscolha(termo);
+        try {
+            System.out.println("\n=== Resultados da busca ===");
+            itemDAO.buscarPorTituloOuAutor(termo).forEach(System.out::println);
+        } catch (Exception e) {
+            System.err.println("Erro ao buscar itens: " + e.getMessage());
+        }
+    }
+
     /**
      * Atualiza as informações de um item existente.
      * Permite atualização parcial - apenas os campos fornecidos serão modificados.
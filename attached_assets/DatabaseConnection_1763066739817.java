@@ -1,12 +1,39 @@
 package util;
 
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.time.Duration;
+import java.util.Properties;
 
 
 public class DatabaseConnection {
     private static String JDBC_URL;
+    private static String OPCOES_URL;
+    private static Duration TIMEOUT_PADRAO = Duration.ofMillis(5000);
+    private static Duration TIMEOUT_VARREDURA = Duration.ofMillis(300000);
+
+    /**
+     * Tempo máximo (em segundos) para abrir a conexão TCP com o banco.
+     * Com prazo, vale o menor entre este valor e o tempo restante.
+     */
+    private static final int CONNECT_TIMEOUT_SEGUNDOS = 10;
+
+    /**
+     * Tempo máximo (em segundos) bloqueado numa leitura do socket, para conexões sem prazo.
+     * Funciona como rede de segurança caso o servidor pare de responder
+     * e o cancelamento da consulta não consiga chegar até ele.
+     */
+    private static final int SOCKET_TIMEOUT_SEGUNDOS = 60;
+
+    /**
+     * Folga (em segundos) do socketTimeout sobre o prazo, para que o erro de
+     * statement_timeout do servidor chegue antes de o socket ser derrubado.
+     */
+    private static final int FOLGA_SOCKET_SEGUNDOS = 1;
 
     /**
      * Bloco estático executado uma única vez quando a classe é carregada.
@@ -15,7 +42,27 @@ public class DatabaseConnection {
     static {
         String databaseUrl = System.getenv("DATABASE_URL");
         if (databaseUrl != null) {
-            JDBC_URL = convertToJdbcUrl(databaseUrl);
+            separarOpcoes(convertToJdbcUrl(databaseUrl));
+        }
+
+        // Prazo padrão das operações do DAO, em milissegundos (opcional)
+        String timeout = System.getenv("DATABASE_TIMEOUT_MS");
+        if (timeout != null) {
+            try {
+                TIMEOUT_PADRAO = Duration.ofMillis(Long.parseLong(timeout.trim()));
+            } catch (NumberFormatException e) {
+                System.err.println("DATABASE_TIMEOUT_MS inválido, usando " + TIMEOUT_PADRAO.toMillis() + " ms");
+            }
+        }
+
+        // Prazo padrão das varreduras da tabela inteira, em milissegundos (opcional)
+        String timeoutVarredura = System.getenv("DATABASE_SCAN_TIMEOUT_MS");
+        if (timeoutVarredura != null) {
+            try {
+                TIMEOUT_VARREDURA = Duration.ofMillis(Long.parseLong(timeoutVarredura.trim()));
+            } catch (NumberFormatException e) {
+                System.err.println("DATABASE_SCAN_TIMEOUT_MS inválido, usando " + TIMEOUT_VARREDURA.toMillis() + " ms");
+            }
         }
     }
 
@@ -91,11 +138,95 @@ public class DatabaseConnection {
         return databaseUrl;
     }
 
-  
+    /**
+     * Separa o parâmetro "options" da URL JDBC (ex.: options=endpoint%3D... do Neon).
+     * Como parâmetros da URL têm precedência sobre as propriedades da conexão,
+     * mantê-lo na URL descartaria o statement_timeout enviado em getConnection(Prazo);
+     * separado, seu valor é combinado com o statement_timeout a cada conexão.
+     */
+    private static void separarOpcoes(String url) {
+        int inicio = url.indexOf('?');
+        if (inicio < 0) {
+            JDBC_URL = url;
+            return;
+        }
+        
+        StringBuilder params = new StringBuilder();
+        for (String param : url.substring(inicio + 1).split("&")) {
+            if (param.startsWith("options=")) {
+                OPCOES_URL = URLDecoder.decode(param.substring("options=".length()), StandardCharsets.UTF_8);
+            } else if (!param.isEmpty()) {
+                if (params.length() > 0) params.append("&");
+                params.append(param);
+            }
+        }
+        
+        JDBC_URL = url.substring(0, inicio);
+        if (params.length() > 0) {
+            JDBC_URL += "?" + params;
+        }
+    }
+
+    /**
+     * Abre uma conexão sem prazo, limitada apenas pelos timeouts fixos
+     * de conexão, autenticação e leitura do socket.
+     * Parâmetros com o mesmo nome na URL têm precedência sobre estes.
+     */
     public static Connection getConnection() throws SQLException {
         if (JDBC_URL == null) {
             throw new SQLException("DATABASE_URL não configurado!");
         }
-        return DriverManager.getConnection(JDBC_URL);
+
+        Properties props = new Properties();
+        props.setProperty("connectTimeout", String.valueOf(CONNECT_TIMEOUT_SEGUNDOS));
+        props.setProperty("loginTimeout", String.valueOf(CONNECT_TIMEOUT_SEGUNDOS));
+        props.setProperty("socketTimeout", String.valueOf(SOCKET_TIMEOUT_SEGUNDOS));
+        if (OPCOES_URL != null) {
+            props.setProperty("options", OPCOES_URL);
+        }
+        return DriverManager.getConnection(JDBC_URL, props);
+    }
+
+    /**
+     * Abre uma conexão limitada pelo prazo informado, do TCP às consultas:
+     * connectTimeout e loginTimeout (abertura e autenticação) e socketTimeout
+     * são derivados do tempo restante, e ele também é enviado ao PostgreSQL
+     * como statement_timeout na própria abertura da conexão, sem uma ida e volta extra.
+     * O statement_timeout é acrescentado às "options" que vieram na URL, se houver.
+     * Os demais parâmetros com o mesmo nome na URL têm precedência sobre estes.
+     */
+    public static Connection getConnection(Prazo prazo) throws SQLException {
+        if (JDBC_URL == null) {
+            throw new SQLException("DATABASE_URL não configurado!");
+        }
+        long restante = prazo.restanteMillis();
+        if (restante <= 0) {
+            throw new SQLTimeoutException("Prazo da operação esgotado antes de conectar ao banco");
+        }
+
+        // O driver só aceita estes timeouts em segundos inteiros
+        int segundos = prazo.restanteSegundos();
+        Properties props = new Properties();
+        props.setProperty("connectTimeout", String.valueOf(Math.min(segundos, CONNECT_TIMEOUT_SEGUNDOS)));
+        props.setProperty("loginTimeout", String.valueOf(segundos));
+        props.setProperty("socketTimeout", String.valueOf(segundos + FOLGA_SOCKET_SEGUNDOS));
+        String statementTimeout = "-c statement_timeout=" + restante;
+        props.setProperty("options", OPCOES_URL == null ? statementTimeout : OPCOES_URL + " " + statementTimeout);
+        return DriverManager.getConnection(JDBC_URL, props);
+    }
+
+    /**
+     * Prazo padrão das operações do DAO (variável DATABASE_TIMEOUT_MS, padrão 5000 ms).
+     */
+    public static Duration getTimeoutPadrao() {
+        return TIMEOUT_PADRAO;
+    }
+
+    /**
+     * Prazo padrão das varreduras da tabela inteira
+     * (variável DATABASE_SCAN_TIMEOUT_MS, padrão 300000 ms).
+     */
+    public static Duration getTimeoutVarredura() {
+        return TIMEOUT_VARREDURA;
     }
 }
@@ -0,0 +1,50 @@
+package util;
+
+import java.util.Arrays;
+
+/**
+ * Histórico das latências mais recentes de uma operação.
+ * Mantém uma janela circular de tamanho fixo e calcula percentis sobre ela,
+ * de forma que a estimativa acompanhe mudanças no comportamento do banco.
+ */
+public class HistoricoLatencias {
+    private final long[] amostras;
+    private int proxima;
+    private int quantidade;
+
+    public HistoricoLatencias(int tamanhoJanela) {
+        this.amostras = new long[tamanhoJanela];
+    }
+
+    /**
+     * Registra a duração de uma execução, em milissegundos.
+     */
+    public synchronized void registrar(long millis) {
+        amostras[proxima] = millis;
+        proxima = (proxima + 1) % amostras.length;
+        if (quantidade < amostras.length) {
+            quantidade++;
+        }
+    }
+
+    /**
+     * Quantidade de amostras disponíveis na janela.
+     */
+    public synchronized int getQuantidade() {
+        return quantidade;
+    }
+
+    /**
+     * Retorna o percentil informado (entre 0 e 1) das amostras da janela,
+     * ou -1 se ainda não houver amostras.
+     */
+    public synchronized long percentil(double p) {
+        if (quantidade == 0) {
+            return -1;
+        }
+        long[] ordenadas = Arrays.copyOf(amostras, quantidade);
+        Arrays.sort(ordenadas);
+        int indice = (int) Math.ceil(p * quantidade) - 1;
+        return ordenadas[Math.max(0, Math.min(indice, quantidade - 1))];
+    }
+}
@@ -0,0 +1,89 @@
+package dao;
+
+import model.Item;
+import service.AutocompleteService;
+import util.Prazo;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Implementação de ItemDAO que delega o acesso a dados para outro DAO
+ * e mantém o índice de sugestões (autocompletar) sincronizado
+ * a cada inserção, atualização ou exclusão.
+ */
+public class ItemDAOAutocomplete implements ItemDAO {
+    private final ItemDAO delegado;
+    private final AutocompleteService autocomplete;
+
+    public ItemDAOAutocomplete(ItemDAO delegado, AutocompleteService autocomplete) {
+        this.delegado = delegado;
+        this.autocomplete = autocomplete;
+    }
+
+    /**
+     * Insere o item e adiciona seu título e autor ao índice.
+     */
+    @Override
+    public void inserir(Item item, Prazo prazo) throws Exception {
+        delegado.inserir(item, prazo);
+        autocomplete.adicionar(item);
+    }
+
+    @Override
+    public List<Item> listarTodos(Prazo prazo) throws Exception {
+        return delegado.listarTodos(prazo);
+    }
+
+    @Override
+    public void percorrerTodos(Consumer<Item> consumidor, Prazo prazo) throws Exception {
+        delegado.percorrerTodos(consumidor, prazo);
+    }
+
+    @Override
+    public List<Item> buscarPorTituloOuAutor(String termo, Prazo prazo) throws Exception {
+        return delegado.buscarPorTituloOuAutor(termo, prazo);
+    }
+
+    @Override
+    public Optional<Item> buscarPorId(int id, Prazo prazo) throws Exception {
+        return delegado.buscarPorId(id, prazo);
+    }
+
+    /**
+     * Atualiza o item e troca no índice os valores antigos pelos novos.
+     * Os valores antigos são lidos antes da atualização; os novos seguem
+     * a mesma regra do DAO (campos nulos ou vazios mantêm o valor atual).
+     * A leitura e a atualização dividem o mesmo prazo.
+     */
+    @Override
+    public void atualizar(int id, String titulo, String autor, Integer ano, String genero, String detalhes, Prazo prazo) throws Exception {
+        Optional<Item> anterior = delegado.buscarPorId(id, prazo);
+        delegado.atualizar(id, titulo, autor, ano, genero, detalhes, prazo);
+
+        if (anterior.isPresent()) {
+            Item antigo = anterior.get();
+            Item novo = new Item(
+                id,
+                titulo != null && !titulo.isEmpty() ? titulo : antigo.getTitulo(),
+                autor != null && !autor.isEmpty() ? autor : antigo.getAutor(),
+                ano != null && ano > 0 ? ano : antigo.getAno(),
+                genero != null && !genero.isEmpty() ? genero : antigo.getGenero(),
+                detalhes != null && !detalhes.isEmpty() ? detalhes : antigo.getDetalhes()
+            );
+            autocomplete.remover(antigo);
+            autocomplete.adicionar(novo);
+        }
+    }
+
+    /**
+     * Remove o item e retira seu título e autor do índice.
+     */
+    @Override
+    public void deletar(int id, Prazo prazo) throws Exception {
+        Optional<Item> anterior = delegado.buscarPorId(id, prazo);
+        delegado.deletar(id, prazo);
+        anterior.ifPresent(autocomplete::remover);
+    }
+}
@@ -2,17 +2,128 @@ package dao;
 
 import model.Item;
 import util.DatabaseConnection;
+import util.HistoricoLatencias;
+import util.Prazo;
 
 import java.sql.*;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 /**
 
  */
 public class ItemDAOImpl implements ItemDAO {
 
+    /**
+     * Quantidade de linhas buscadas por vez ao percorrer a tabela inteira.
+     */
+    private static final int TAMANHO_LOTE = 500;
+
+    /**
+     * Mínimo de amostras de latência antes de disparar leituras redundantes.
+     * Sem um histórico confiável, o p95 não serve como atraso.
+     */
+    private static final int AMOSTRAS_MINIMAS = 20;
+
+    /**
+     * Atraso mínimo (em milissegundos) antes da leitura redundante.
+     * Com consultas abaixo de 1 ms o p95 é zero, o que faria toda leitura ir em dobro.
+     */
+    private static final long ATRASO_MINIMO_MS = 10;
+
+    /**
+     * Fração máxima de leituras que podem disparar uma segunda tentativa.
+     * Cada leitura acumula esta fração de crédito e cada tentativa extra consome 1.
+     */
+    private static final double TAXA_MAXIMA_REDUNDANCIA = 0.05;
+
+    /**
+     * Crédito máximo acumulado, que limita rajadas de tentativas extras
+     * após um período tranquilo.
+     */
+    private static final double CREDITO_MAXIMO = 10;
+
+    /**
+     * Threads que executam as tentativas de leitura redundante.
+     */
+    private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+        Thread t = new Thread(r, "item-dao-leitura");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final boolean leiturasRedundantes;
+    private final HistoricoLatencias latenciasLeitura = new HistoricoLatencias(128);
+    private double creditoRedundancia;
+
+    /**
+     * Cria o DAO sem leituras redundantes.
+     */
+    public ItemDAOImpl() {
+        this(false);
+    }
+
+    /**
+     * Cria o DAO, opcionalmente com leituras redundantes (hedged reads):
+     * em buscarPorId e buscarPorTituloOuAutor, se a primeira tentativa demorar
+     * mais que o p95 das leituras recentes (no mínimo ATRASO_MINIMO_MS), uma segunda
+     * é disparada em outra conexão, em no máximo 5% das leituras.
+     * Vale a que responder primeiro; a outra é cancelada no banco em segundo plano,
+     * pois o cancelamento abre uma nova conexão e pode demorar. Assim o chamador
+     * recebe o resultado (ou o SQLTimeoutException) sem esperar por ele
+     * e nunca espera além do prazo.
+     */
+    public ItemDAOImpl(boolean leiturasRedundantes) {
+        this.leiturasRedundantes = leiturasRedundantes;
+    }
+
+    /**
+     * Consulta de leitura executada sobre um PreparedStatement já preparado.
+     */
+    @FunctionalInterface
+    private interface Consulta<T> {
+        T executar(PreparedStatement pstmt) throws SQLException;
+    }
+
+    /**
+     * Uma tentativa de leitura em andamento, com o statement que pode ser cancelado.
+     */
+    private static class Tentativa<T> {
+        private final CompletableFuture<T> resultado = new CompletableFuture<>();
+        private Statement statement;
+        private boolean cancelada;
+
+        private synchronized void registrar(Statement stmt) throws SQLException {
+            if (cancelada) {
+                throw new SQLException("Tentativa de leitura cancelada");
+            }
+            statement = stmt;
+        }
+
+        /**
+         * Cancela a consulta no banco se ela ainda estiver em execução.
+         */
+        private synchronized void cancelar() {
+            cancelada = true;
+            if (statement != null && !resultado.isDone()) {
+                try {
+                    statement.cancel();
+                } catch (SQLException e) {
+                    // A consulta pode ter terminado nesse meio tempo
+                }
+            }
+        }
+    }
+
     /**
 
      */
@@ -33,12 +144,12 @@ public class ItemDAOImpl implements ItemDAO {
      * O ID é gerado automaticamente pelo banco (SERIAL).
      */
     @Override
-    public void inserir(Item item) throws Exception {
+    public void inserir(Item item, Prazo prazo) throws Exception {
         String sql = "INSERT INTO items (titulo, autor, ano, genero, detalhes) VALUES (?, ?, ?, ?, ?)";
         
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getConnection(prazo);
+             PreparedStatement pstmt = preparar(conn, sql, prazo)) {
             
             // Define os parâmetros do PreparedStatement na ordem correta
             pstmt.setString(1, item.getTitulo());
@@ -56,14 +167,14 @@ public class ItemDAOImpl implements ItemDAO {
      * Os resultados são ordenados por ID em ordem crescente.
      */
     @Override
-    public List<Item> listarTodos() throws Exception {
+    public List<Item> listarTodos(Prazo prazo) throws Exception {
         List<Item> items = new ArrayList<>();
         String sql = "SELECT * FROM items ORDER BY id";
         
         // Try-with-resources para gerenciamento automático de recursos
-        try (Connection conn = DatabaseConnection.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (Connection conn = DatabaseConnection.getConnection(prazo);
+             PreparedStatement pstmt = preparar(conn, sql, prazo);
+             ResultSet rs = pstmt.executeQuery()) {
             
             // Itera por todos os resultados e converte para objetos Item
             while (rs.next()) {
@@ -74,21 +185,61 @@ public class ItemDAOImpl implements ItemDAO {
         return items;
     }
 
+    /**
+     * Percorre todos os itens em ordem de ID, lendo os registros em lotes.
+     * O driver do PostgreSQL só usa cursor (fetch size) com autocommit desligado,
+     * por isso a leitura é feita dentro de uma transação somente leitura.
+     * O statement_timeout vale para cada lote buscado; o prazo da varredura
+     * inteira é conferido a cada linha.
+     */
+    @Override
+    public void percorrerTodos(Consumer<Item> consumidor, Prazo prazo) throws Exception {
+        String sql = "SELECT * FROM items ORDER BY id";
+        
+        try (Connection conn = DatabaseConnection.getConnection(prazo)) {
+            conn.setAutoCommit(false);
+            conn.setReadOnly(true);
+            
+            try (PreparedStatement pstmt = preparar(conn, sql, prazo)) {
+                pstmt.setFetchSize(TAMANHO_LOTE);
+                
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        if (prazo.expirou()) {
+                            throw new SQLTimeoutException("Prazo da varredura esgotado");
+                        }
+                        consumidor.accept(mapRow(rs));
+                    }
+                }
+            } catch (Exception e) {
+                // A conexão pode já ter caído (ex.: socketTimeout): a falha do rollback
+                // não deve esconder o erro original
+                try {
+                    conn.rollback();
+                } catch (SQLException erroRollback) {
+                    e.addSuppressed(erroRollback);
+                }
+                throw e;
+            }
+
+            conn.rollback();
+        }
+    }
+
     /**
      * Busca itens por título ou autor usando correspondência parcial.
      * A busca é case-insensitive (não diferencia maiúsculas de minúsculas).
      * Utiliza o operador LIKE do SQL para encontrar correspondências parciais.
      */
     @Override
-    public List<Item> buscarPorTituloOuAutor(String termo) throws Exception {
-        List<Item> items = new ArrayList<>();
+    public List<Item> buscarPorTituloOuAutor(String termo, Prazo prazo) throws Exception {
         String sql = "SELECT * FROM items WHERE LOWER(titulo) LIKE ? OR LOWER(autor) LIKE ? ORDER BY id";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
-            // Adiciona % antes e depois para busca parcial, converte para minúsculas
-            String termoLike = "%" + termo.toLowerCase() + "%";
+        // Adiciona % antes e depois para busca parcial, converte para minúsculas
+        String termoLike = "%" + termo.toLowerCase() + "%";
+        
+        return ler(sql, prazo, pstmt -> {
+            List<Item> items = new ArrayList<>();
             pstmt.setString(1, termoLike);
             pstmt.setString(2, termoLike);
             
@@ -97,9 +248,8 @@ public class ItemDAOImpl implements ItemDAO {
                     items.add(mapRow(rs));
                 }
             }
-        }
-        
-        return items;
+            return items;
+        });
     }
 
     /**
@@ -107,12 +257,10 @@ public class ItemDAOImpl implements ItemDAO {
      * Retorna um Optional para indicar presença ou ausência do item.
      */
     @Override
-    public Optional<Item> buscarPorId(int id) throws Exception {
+    public Optional<Item> buscarPorId(int id, Prazo prazo) throws Exception {
         String sql = "SELECT * FROM items WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            
+        return ler(sql, prazo, pstmt -> {
             pstmt.setInt(1, id);
             
             try (ResultSet rs = pstmt.executeQuery()) {
@@ -120,9 +268,8 @@ public class ItemDAOImpl implements ItemDAO {
                     return Optional.of(mapRow(rs));
                 }
             }
-        }
-        
-        return Optional.empty();
+            return Optional.empty();
+        });
     }
 
     /**
@@ -131,7 +278,7 @@ public class ItemDAOImpl implements ItemDAO {
      * Apenas campos não nulos e não vazios são incluídos na atualização.
      */
     @Override
-    public void atualizar(int id, String titulo, String autor, Integer ano, String genero, String detalhes) throws Exception {
+    public void atualizar(int id, String titulo, String autor, Integer ano, String genero, String detalhes, Prazo prazo) throws Exception {
         StringBuilder sql = new StringBuilder("UPDATE items SET ");
         List<Object> parametros = new ArrayList<>();
         boolean primeiro = true;
@@ -175,8 +322,8 @@ public class ItemDAOImpl implements ItemDAO {
         sql.append(" WHERE id = ?");
         parametros.add(id);
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+        try (Connection conn = DatabaseConnection.getConnection(prazo);
+             PreparedStatement pstmt = preparar(conn, sql.toString(), prazo)) {
             
             // Define os parâmetros dinamicamente na ordem em que foram adicionados
             for (int i = 0; i < parametros.size(); i++) {
@@ -192,14 +339,184 @@ public class ItemDAOImpl implements ItemDAO {
      * A operação é permanente e não pode ser desfeita.
      */
     @Override
-    public void deletar(int id) throws Exception {
+    public void deletar(int id, Prazo prazo) throws Exception {
         String sql = "DELETE FROM items WHERE id = ?";
         
-        try (Connection conn = DatabaseConnection.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+        try (Connection conn = DatabaseConnection.getConnection(prazo);
+             PreparedStatement pstmt = preparar(conn, sql, prazo)) {
             
             pstmt.setInt(1, id);
             pstmt.executeUpdate();
         }
     }
+
+    /**
+     * Prepara um statement limitado pelo prazo.
+     * O setQueryTimeout faz o driver cancelar a consulta no lado do cliente;
+     * o statement_timeout da conexão (ver DatabaseConnection) limita no servidor.
+     */
+    private PreparedStatement preparar(Connection conn, String sql, Prazo prazo) throws SQLException {
+        if (prazo.expirou()) {
+            throw new SQLTimeoutException("Prazo da operação esgotado");
+        }
+        PreparedStatement pstmt = conn.prepareStatement(sql);
+        pstmt.setQueryTimeout(prazo.restanteSegundos());
+        return pstmt;
+    }
+
+    /**
+     * Executa uma leitura idempotente, com leitura redundante se estiver habilitada.
+     */
+    private <T> T ler(String sql, Prazo prazo, Consulta<T> consulta) throws Exception {
+        if (!leiturasRedundantes) {
+            long inicio = System.nanoTime();
+            try {
+                return executar(sql, prazo, consulta, null);
+            } finally {
+                registrarLatencia(inicio);
+            }
+        }
+
+        acumularCredito();
+        Tentativa<T> primeira = iniciar(sql, prazo, consulta, true);
+        Tentativa<T> segunda = null;
+        try {
+            long atraso = atrasoRedundancia();
+            long restante = prazo.restanteMillis();
+            if (atraso < 0 || atraso >= restante) {
+                return aguardar(primeira.resultado, prazo);
+            }
+
+            try {
+                return primeira.resultado.get(atraso, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                // A primeira tentativa passou do p95: dispara a segunda, se houver crédito
+            } catch (ExecutionException e) {
+                throw causa(e);
+            }
+
+            if (!consumirCredito()) {
+                return aguardar(primeira.resultado, prazo);
+            }
+            segunda = iniciar(sql, prazo, consulta, false);
+            return aguardar(primeiroSucesso(primeira.resultado, segunda.resultado), prazo);
+        } finally {
+            cancelarEmSegundoPlano(primeira);
+            if (segunda != null) {
+                cancelarEmSegundoPlano(segunda);
+            }
+        }
+    }
+
+    /**
+     * Cancela a tentativa sem bloquear o chamador. O driver envia o pedido de
+     * cancelamento por uma nova conexão, que pode levar até cancelSignalTimeout.
+     */
+    private static void cancelarEmSegundoPlano(Tentativa<?> tentativa) {
+        if (!tentativa.resultado.isDone()) {
+            EXECUTOR.execute(tentativa::cancelar);
+        }
+    }
+
+    /**
+     * Executa a consulta numa nova conexão, registrando o statement na tentativa
+     * (quando houver) para que possa ser cancelado.
+     */
+    private <T> T executar(String sql, Prazo prazo, Consulta<T> consulta, Tentativa<T> tentativa) throws SQLException {
+        try (Connection conn = DatabaseConnection.getConnection(prazo);
+             PreparedStatement pstmt = preparar(conn, sql, prazo)) {
+            
+            if (tentativa != null) {
+                tentativa.registrar(pstmt);
+            }
+            return consulta.executar(pstmt);
+        }
+    }
+
+    /**
+     * Dispara uma tentativa de leitura em outra thread.
+     * Só a latência da primeira tentativa entra no histórico, inclusive quando ela
+     * falha ou é cancelada: o tempo até o cancelamento é um limite inferior da
+     * latência real e mantém a cauda lenta na janela. Registrar apenas as tentativas
+     * bem-sucedidas puxaria o p95 para baixo e aumentaria a taxa de redundância.
+     */
+    private <T> Tentativa<T> iniciar(String sql, Prazo prazo, Consulta<T> consulta, boolean registrarLatencia) {
+        Tentativa<T> tentativa = new Tentativa<>();
+        EXECUTOR.execute(() -> {
+            long inicio = System.nanoTime();
+            try {
+                tentativa.resultado.complete(executar(sql, prazo, consulta, tentativa));
+            } catch (Throwable e) {
+                tentativa.resultado.completeExceptionally(e);
+            } finally {
+                if (registrarLatencia) {
+                    registrarLatencia(inicio);
+                }
+            }
+        });
+        return tentativa;
+    }
+
+    private void registrarLatencia(long inicioNanos) {
+        latenciasLeitura.registrar(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioNanos));
+    }
+
+    /**
+     * Atraso antes da leitura redundante: o p95 das leituras recentes, no mínimo
+     * ATRASO_MINIMO_MS, ou -1 enquanto não houver amostras suficientes.
+     */
+    private long atrasoRedundancia() {
+        if (latenciasLeitura.getQuantidade() < AMOSTRAS_MINIMAS) {
+            return -1;
+        }
+        return Math.max(ATRASO_MINIMO_MS, latenciasLeitura.percentil(0.95));
+    }
+
+    private synchronized void acumularCredito() {
+        creditoRedundancia = Math.min(CREDITO_MAXIMO, creditoRedundancia + TAXA_MAXIMA_REDUNDANCIA);
+    }
+
+    private synchronized boolean consumirCredito() {
+        if (creditoRedundancia < 1) {
+            return false;
+        }
+        creditoRedundancia -= 1;
+        return true;
+    }
+
+    /**
+     * Resultado da primeira tentativa bem-sucedida; falha apenas se ambas falharem.
+     */
+    private static <T> CompletableFuture<T> primeiroSucesso(CompletableFuture<T> a, CompletableFuture<T> b) {
+        CompletableFuture<T> vencedora = new CompletableFuture<>();
+        AtomicInteger falhas = new AtomicInteger();
+        for (CompletableFuture<T> tentativa : List.of(a, b)) {
+            tentativa.whenComplete((valor, erro) -> {
+                if (erro == null) {
+                    vencedora.complete(valor);
+                } else if (falhas.incrementAndGet() == 2) {
+                    vencedora.completeExceptionally(erro);
+                }
+            });
+        }
+        return vencedora;
+    }
+
+    /**
+     * Aguarda o resultado até o fim do prazo.
+     */
+    private static <T> T aguardar(CompletableFuture<T> resultado, Prazo prazo) throws Exception {
+        try {
+            return resultado.get(Math.max(0, prazo.restanteMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new SQLTimeoutException("Prazo da operação esgotado");
+        } catch (ExecutionException e) {
+            throw causa(e);
+        }
+    }
+
+    private static Exception causa(ExecutionException e) {
+        Throwable causa = e.getCause();
+        return causa instanceof Exception ? (Exception) causa : e;
+    }
 }
@@ -1,13 +1,17 @@
 package dao;
 
 import model.Item;
+import util.Prazo;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Interface DAO (Data Access Object) para operações com itens do catálogo.
  * Define o contrato para acesso e manipulação de dados no banco PostgreSQL.
  * Utiliza o padrão DAO para separar a lógica de negócio da lógica de acesso a dados.
+ * Cada operação recebe um Prazo; se ele terminar, a consulta é cancelada no banco
+ * e a operação falha com SQLTimeoutException. As versões sem Prazo usam o prazo padrão.
 
  */
 public interface ItemDAO {
@@ -15,33 +19,68 @@ public interface ItemDAO {
     /**
      * Insere um novo item no banco de dados.
      */
-    void inserir(Item item) throws Exception;
+    void inserir(Item item, Prazo prazo) throws Exception;
+    
+    default void inserir(Item item) throws Exception {
+        inserir(item, Prazo.padrao());
+    }
     
     /**
      * Lista todos os itens cadastrados no banco de dados.
      * Os itens são retornados ordenados por ID.
      */
-    List<Item> listarTodos() throws Exception;
+    List<Item> listarTodos(Prazo prazo) throws Exception;
+    
+    default List<Item> listarTodos() throws Exception {
+        return listarTodos(Prazo.padrao());
+    }
+    
+    /**
+     * Percorre todos os itens do banco de dados, entregando um a um ao consumidor.
+     * Os registros são lidos em lotes, sem carregar a tabela inteira na memória.
+     * O prazo vale para a varredura inteira; a versão sem Prazo usa o prazo de varredura.
+     */
+    void percorrerTodos(Consumer<Item> consumidor, Prazo prazo) throws Exception;
+    
+    default void percorrerTodos(Consumer<Item> consumidor) throws Exception {
+        percorrerTodos(consumidor, Prazo.varredura());
+    }
     
     /**
      * Busca itens por título ou autor usando pesquisa parcial (LIKE).
      * A busca não diferencia maiúsculas de minúsculas.
      */
-    List<Item> buscarPorTituloOuAutor(String termo) throws Exception;
+    List<Item> buscarPorTituloOuAutor(String termo, Prazo prazo) throws Exception;
+    
+    default List<Item> buscarPorTituloOuAutor(String termo) throws Exception {
+        return buscarPorTituloOuAutor(termo, Prazo.padrao());
+    }
     
     /**
      * Busca um item específico pelo seu ID.
      */
-    Optional<Item> buscarPorId(int id) throws Exception;
+    Optional<Item> buscarPorId(int id, Prazo prazo) throws Exception;
+    
+    default Optional<Item> buscarPorId(int id) throws Exception {
+        return buscarPorId(id, Prazo.padrao());
+    }
     
     /**
      * Atualiza as informações de um item existente.
      * Apenas os campos não nulos/vazios serão atualizados.
      */
-    void atualizar(int id, String titulo, String autor, Integer ano, String genero, String detalhes) throws Exception;
+    void atualizar(int id, String titulo, String autor, Integer ano, String genero, String detalhes, Prazo prazo) throws Exception;
+    
+    default void atualizar(int id, String titulo, String autor, Integer ano, String genero, String detalhes) throws Exception {
+        atualizar(id, titulo, autor, ano, genero, detalhes, Prazo.padrao());
+    }
     
     /**
      * Remove um item do banco de dados pelo seu ID.
      */
-    void deletar(int id) throws Exception;
+    void deletar(int id, Prazo prazo) throws Exception;
+    
+    default void deletar(int id) throws Exception {
+        deletar(id, Prazo.padrao());
+    }
 }
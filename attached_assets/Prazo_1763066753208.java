@@ -0,0 +1,62 @@
+package util;
+
+import java.time.Duration;
+
+/**
+ * Prazo (deadline) de uma operação no banco de dados.
+ * Guarda o instante limite e informa quanto tempo ainda resta,
+ * permitindo que várias etapas de uma mesma operação dividam o mesmo prazo.
+ */
+public final class Prazo {
+    private final long limiteNanos;
+
+    private Prazo(long limiteNanos) {
+        this.limiteNanos = limiteNanos;
+    }
+
+    /**
+     * Cria um prazo que termina após a duração informada, a partir de agora.
+     */
+    public static Prazo em(Duration duracao) {
+        return new Prazo(System.nanoTime() + duracao.toNanos());
+    }
+
+    /**
+     * Cria um prazo com a duração padrão configurada em DatabaseConnection.
+     */
+    public static Prazo padrao() {
+        return em(DatabaseConnection.getTimeoutPadrao());
+    }
+
+    /**
+     * Cria um prazo com a duração padrão das varreduras da tabela inteira,
+     * maior que a das demais operações.
+     */
+    public static Prazo varredura() {
+        return em(DatabaseConnection.getTimeoutVarredura());
+    }
+
+    /**
+     * Tempo restante em milissegundos (zero ou negativo se o prazo já passou).
+     */
+    public long restanteMillis() {
+        return Duration.ofNanos(limiteNanos - System.nanoTime()).toMillis();
+    }
+
+    /**
+     * Tempo restante arredondado para cima em segundos, no mínimo 1.
+     * Usado em Statement.setQueryTimeout, que só aceita segundos
+     * (e trata zero como "sem limite").
+     */
+    public int restanteSegundos() {
+        long millis = restanteMillis();
+        return (int) Math.max(1, (millis + 999) / 1000);
+    }
+
+    /**
+     * Indica se o prazo já terminou.
+     */
+    public boolean expirou() {
+        return restanteMillis() <= 0;
+    }
+}